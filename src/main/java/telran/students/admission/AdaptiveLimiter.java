@@ -0,0 +1,124 @@
+package telran.students.admission;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import telran.students.dto.AdmissionMetrics;
+import telran.students.exceptions.ServiceOverloadedException;
+
+/**
+ * Concurrency limiter of a cost class with AIMD adaptation of the limit:
+ * a call with latency above the target decreases the limit multiplicatively
+ * (once for all the calls started before the previous decrease),
+ * a call at the limit with latency below the target increases it additively.
+ * Calls over the limit wait in the FIFO queue until the deadline,
+ * new calls aren't admitted ahead of the queued ones,
+ * calls over the queue capacity or the deadline are rejected
+ */
+public class AdaptiveLimiter {
+	private static final double BACKOFF_RATIO = 0.9;
+	private final CostClass costClass;
+	private final AdmissionProperties.Limits limits;
+	private final long queueTimeoutNanos;
+	private final long targetLatencyNanos;
+	private final ReentrantLock lock = new ReentrantLock();
+	// each queued call waits for its own condition signaled when the call is at the queue head
+	private final Deque<Condition> queue = new ArrayDeque<>();
+	private double limit;
+	private int inFlight;
+	private boolean backedOff;
+	private long backoffNanos;
+	private long admitted;
+	private long rejected;
+
+	public AdaptiveLimiter(CostClass costClass, AdmissionProperties.Limits limits) {
+		this.costClass = costClass;
+		this.limits = limits;
+		queueTimeoutNanos = limits.queueTimeout().toNanos();
+		targetLatencyNanos = limits.targetLatency().toNanos();
+		limit = limits.initialLimit();
+	}
+
+	public void acquire() {
+		lock.lock();
+		try {
+			if (inFlight >= (int) limit || !queue.isEmpty()) {
+				if (queue.size() >= limits.maxQueue()) {
+					throw reject();
+				}
+				await();
+			}
+			inFlight++;
+			admitted++;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	private void await() {
+		Condition turn = lock.newCondition();
+		queue.addLast(turn);
+		try {
+			long nanos = queueTimeoutNanos;
+			while (queue.peekFirst() != turn || inFlight >= (int) limit) {
+				if (nanos <= 0) {
+					throw reject();
+				}
+				nanos = turn.awaitNanos(nanos);
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw reject();
+		} finally {
+			queue.remove(turn);
+			signalHead();
+		}
+	}
+
+	private void signalHead() {
+		Condition head = queue.peekFirst();
+		if (head != null) {
+			head.signal();
+		}
+	}
+
+	private ServiceOverloadedException reject() {
+		rejected++;
+		return new ServiceOverloadedException(costClass);
+	}
+
+	public void release(long latency, TimeUnit unit) {
+		lock.lock();
+		try {
+			boolean atLimit = inFlight >= (int) limit;
+			inFlight--;
+			long nanos = unit.toNanos(latency);
+			long now = System.nanoTime();
+			if (nanos > targetLatencyNanos) {
+				// the calls started before the previous decrease don't reflect it yet
+				if (!backedOff || now - nanos - backoffNanos > 0) {
+					limit = Math.max(limits.minLimit(), limit * BACKOFF_RATIO);
+					backedOff = true;
+					backoffNanos = now;
+				}
+			} else if (atLimit) {
+				limit = Math.min(limits.maxLimit(), limit + 1 / limit);
+			}
+			signalHead();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	public AdmissionMetrics getMetrics() {
+		lock.lock();
+		try {
+			return new AdmissionMetrics(costClass, (int) limit, inFlight, queue.size(), admitted, rejected);
+		} finally {
+			lock.unlock();
+		}
+	}
+}
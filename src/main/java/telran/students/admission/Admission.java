@@ -0,0 +1,14 @@
+package telran.students.admission;
+
+import java.lang.annotation.*;
+
+/**
+ * cost class of a service method, calls of the method are admitted
+ * by the concurrency limiter of the class
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface Admission {
+	CostClass value();
+}
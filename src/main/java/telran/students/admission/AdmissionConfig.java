@@ -0,0 +1,40 @@
+package telran.students.admission;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import telran.students.service.StudentsService;
+
+@Configuration
+@EnableConfigurationProperties(AdmissionProperties.class)
+public class AdmissionConfig {
+
+	/**
+	 * wraps StudentsService by the proxy applying AdmissionControl,
+	 * the control is looked up on the first call as post processors are created before other beans
+	 */
+	@Bean
+	static BeanPostProcessor studentsServiceAdmissionPostProcessor(
+			ObjectProvider<AdmissionControl> admissionControl) {
+		return new BeanPostProcessor() {
+			@Override
+			public Object postProcessAfterInitialization(Object bean, String beanName) {
+				Object res = bean;
+				if (bean instanceof StudentsService) {
+					ProxyFactory proxyFactory = new ProxyFactory(bean);
+					proxyFactory.addInterface(StudentsService.class);
+					MethodInterceptor interceptor =
+							invocation -> admissionControl.getObject().invoke(invocation);
+					proxyFactory.addAdvice(interceptor);
+					res = proxyFactory.getProxy();
+				}
+				return res;
+			}
+		};
+	}
+}
@@ -0,0 +1,65 @@
+package telran.students.admission;
+
+import java.lang.reflect.Method;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.stereotype.Component;
+
+import lombok.extern.slf4j.Slf4j;
+import telran.students.dto.AdmissionMetrics;
+
+/**
+ * Admits calls of the methods annotated by @Admission through the limiter of their cost class,
+ * calls of not annotated methods are passed as is
+ */
+@Component
+@Slf4j
+public class AdmissionControl implements MethodInterceptor {
+	final Map<CostClass, AdaptiveLimiter> limiters = new EnumMap<>(CostClass.class);
+	final Map<Method, Optional<CostClass>> methodClasses = new ConcurrentHashMap<>();
+
+	public AdmissionControl(AdmissionProperties properties) {
+		for (CostClass costClass : CostClass.values()) {
+			AdmissionProperties.Limits limits = properties.getLimits(costClass);
+			log.debug("admission limits of {}: {}", costClass, limits);
+			limiters.put(costClass, new AdaptiveLimiter(costClass, limits));
+		}
+	}
+
+	@Override
+	public Object invoke(MethodInvocation invocation) throws Throwable {
+		Optional<CostClass> costClass = methodClasses.computeIfAbsent(invocation.getMethod(),
+				method -> getCostClass(method, invocation.getThis()));
+		Object res;
+		if (costClass.isEmpty()) {
+			res = invocation.proceed();
+		} else {
+			AdaptiveLimiter limiter = limiters.get(costClass.get());
+			limiter.acquire();
+			long start = System.nanoTime();
+			try {
+				res = invocation.proceed();
+			} finally {
+				limiter.release(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+			}
+		}
+		return res;
+	}
+
+	private Optional<CostClass> getCostClass(Method method, Object target) {
+		Method targetMethod = target == null ? method
+				: AopUtils.getMostSpecificMethod(method, target.getClass());
+		Admission admission = AnnotatedElementUtils.findMergedAnnotation(targetMethod, Admission.class);
+		return Optional.ofNullable(admission).map(Admission::value);
+	}
+
+	public List<AdmissionMetrics> getMetrics() {
+		return limiters.values().stream().map(AdaptiveLimiter::getMetrics).toList();
+	}
+}
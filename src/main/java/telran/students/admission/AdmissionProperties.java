@@ -0,0 +1,40 @@
+package telran.students.admission;
+
+import java.time.Duration;
+import java.util.Map;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * app.admission.classes.{point-read|write|analytics}.* - limits of the cost classes,
+ * the defaults of CostClass are applied to the classes and the limits not configured
+ */
+@ConfigurationProperties("app.admission")
+public record AdmissionProperties(Map<CostClass, Limits> classes) {
+	/**
+	 * @param initialLimit concurrency limit at start
+	 * @param minLimit limit can't be decreased below
+	 * @param maxLimit limit can't be increased above
+	 * @param maxQueue maximal number of calls waiting for admission
+	 * @param queueTimeout deadline of waiting for admission
+	 * @param targetLatency latency above that decreases the limit
+	 */
+	public record Limits(Integer initialLimit, Integer minLimit, Integer maxLimit, Integer maxQueue,
+			Duration queueTimeout, Duration targetLatency) {
+		Limits withDefaults(Limits defaults) {
+			return new Limits(orDefault(initialLimit, defaults.initialLimit),
+					orDefault(minLimit, defaults.minLimit), orDefault(maxLimit, defaults.maxLimit),
+					orDefault(maxQueue, defaults.maxQueue), orDefault(queueTimeout, defaults.queueTimeout),
+					orDefault(targetLatency, defaults.targetLatency));
+		}
+
+		private static <T> T orDefault(T value, T defaultValue) {
+			return value == null ? defaultValue : value;
+		}
+	}
+
+	public Limits getLimits(CostClass costClass) {
+		Limits limits = classes == null ? null : classes.get(costClass);
+		return limits == null ? costClass.defaultLimits : limits.withDefaults(costClass.defaultLimits);
+	}
+}
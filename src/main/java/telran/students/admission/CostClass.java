@@ -0,0 +1,18 @@
+package telran.students.admission;
+
+import java.time.Duration;
+
+public enum CostClass {
+	POINT_READ(new AdmissionProperties.Limits(50, 10, 200, 200, Duration.ofMillis(500),
+			Duration.ofMillis(50))),
+	WRITE(new AdmissionProperties.Limits(20, 5, 100, 100, Duration.ofSeconds(1),
+			Duration.ofMillis(100))),
+	ANALYTICS(new AdmissionProperties.Limits(4, 1, 16, 10, Duration.ofSeconds(2),
+			Duration.ofSeconds(1)));
+
+	final AdmissionProperties.Limits defaultLimits;
+
+	CostClass(AdmissionProperties.Limits defaultLimits) {
+		this.defaultLimits = defaultLimits;
+	}
+}
@@ -0,0 +1,45 @@
+package telran.students.codecs;
+
+import java.time.LocalDate;
+
+import org.bson.BsonReader;
+import org.bson.BsonType;
+import org.bson.BsonWriter;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.EncoderContext;
+
+import telran.students.dto.Mark;
+
+public class MarkCodec extends RecordCodec<Mark> {
+
+	public MarkCodec() {
+		super(Mark.class);
+	}
+
+	@Override
+	public Mark decode(BsonReader reader, DecoderContext decoderContext) {
+		String subject = null;
+		int score = 0;
+		LocalDate date = null;
+		reader.readStartDocument();
+		while (reader.readBsonType() != BsonType.END_OF_DOCUMENT) {
+			switch (reader.readName()) {
+			case "subject" -> subject = reader.readString();
+			case "score" -> score = reader.readInt32();
+			case "date" -> date = readLocalDate(reader);
+			default -> reader.skipValue();
+			}
+		}
+		reader.readEndDocument();
+		return new Mark(subject, score, date);
+	}
+
+	@Override
+	public void encode(BsonWriter writer, Mark value, EncoderContext encoderContext) {
+		writer.writeStartDocument();
+		writeString(writer, "subject", value.subject());
+		writer.writeInt32("score", value.score());
+		writeLocalDate(writer, "date", value.date());
+		writer.writeEndDocument();
+	}
+}
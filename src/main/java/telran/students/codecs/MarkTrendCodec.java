@@ -0,0 +1,54 @@
+package telran.students.codecs;
+
+import java.time.LocalDate;
+
+import org.bson.BsonReader;
+import org.bson.BsonType;
+import org.bson.BsonWriter;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.EncoderContext;
+
+import telran.students.dto.MarkTrend;
+
+public class MarkTrendCodec extends RecordCodec<MarkTrend> {
+
+	public MarkTrendCodec() {
+		super(MarkTrend.class);
+	}
+
+	@Override
+	public MarkTrend decode(BsonReader reader, DecoderContext decoderContext) {
+		long id = 0;
+		String subject = null;
+		LocalDate date = null;
+		int score = 0;
+		double avgScore = 0;
+		double delta = 0;
+		reader.readStartDocument();
+		while (reader.readBsonType() != BsonType.END_OF_DOCUMENT) {
+			switch (reader.readName()) {
+			case "_id" -> id = reader.readInt64();
+			case "subject" -> subject = reader.readString();
+			case "date" -> date = readLocalDate(reader);
+			case "score" -> score = reader.readInt32();
+			case "avgScore" -> avgScore = reader.readDouble();
+			case "delta" -> delta = reader.readDouble();
+			default -> reader.skipValue();
+			}
+		}
+		reader.readEndDocument();
+		return new MarkTrend(id, subject, date, score, avgScore, delta);
+	}
+
+	@Override
+	public void encode(BsonWriter writer, MarkTrend value, EncoderContext encoderContext) {
+		writer.writeStartDocument();
+		writer.writeInt64("_id", value.id());
+		writeString(writer, "subject", value.subject());
+		writeLocalDate(writer, "date", value.date());
+		writer.writeInt32("score", value.score());
+		writer.writeDouble("avgScore", value.avgScore());
+		writer.writeDouble("delta", value.delta());
+		writer.writeEndDocument();
+	}
+}
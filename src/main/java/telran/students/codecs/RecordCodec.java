@@ -0,0 +1,43 @@
+package telran.students.codecs;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+
+import org.bson.BsonReader;
+import org.bson.BsonWriter;
+import org.bson.codecs.Codec;
+
+/**
+ * Base of the codecs mapping the dto records straight from and to BSON
+ * without intermediate org.bson.Document objects; null fields are not written
+ */
+public abstract class RecordCodec<T> implements Codec<T> {
+	private final Class<T> encoderClass;
+
+	protected RecordCodec(Class<T> encoderClass) {
+		this.encoderClass = encoderClass;
+	}
+
+	@Override
+	public Class<T> getEncoderClass() {
+		return encoderClass;
+	}
+
+	protected static LocalDate readLocalDate(BsonReader reader) {
+		// the same conversion as the one applied by Spring Data for LocalDate fields
+		return LocalDate.ofInstant(Instant.ofEpochMilli(reader.readDateTime()), ZoneId.systemDefault());
+	}
+
+	protected static void writeLocalDate(BsonWriter writer, String name, LocalDate date) {
+		if (date != null) {
+			writer.writeDateTime(name, date.atStartOfDay(ZoneId.systemDefault()).toInstant().toEpochMilli());
+		}
+	}
+
+	protected static void writeString(BsonWriter writer, String name, String value) {
+		if (value != null) {
+			writer.writeString(name, value);
+		}
+	}
+}
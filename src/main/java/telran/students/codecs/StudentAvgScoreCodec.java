@@ -0,0 +1,41 @@
+package telran.students.codecs;
+
+import org.bson.BsonReader;
+import org.bson.BsonType;
+import org.bson.BsonWriter;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.EncoderContext;
+
+import telran.students.dto.StudentAvgScore;
+
+public class StudentAvgScoreCodec extends RecordCodec<StudentAvgScore> {
+
+	public StudentAvgScoreCodec() {
+		super(StudentAvgScore.class);
+	}
+
+	@Override
+	public StudentAvgScore decode(BsonReader reader, DecoderContext decoderContext) {
+		long id = 0;
+		int avgScore = 0;
+		reader.readStartDocument();
+		while (reader.readBsonType() != BsonType.END_OF_DOCUMENT) {
+			switch (reader.readName()) {
+			case "_id" -> id = reader.readInt64();
+			case "avgScore" -> avgScore = (int) reader.readDouble();
+			default -> reader.skipValue();
+			}
+		}
+		reader.readEndDocument();
+		return new StudentAvgScore(id, avgScore);
+	}
+
+	@Override
+	public void encode(BsonWriter writer, StudentAvgScore value, EncoderContext encoderContext) {
+		writer.writeStartDocument();
+		writer.writeInt64("_id", value.id());
+		// double as in the results of $avg
+		writer.writeDouble("avgScore", value.avgScore());
+		writer.writeEndDocument();
+	}
+}
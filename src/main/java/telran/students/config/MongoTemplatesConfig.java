@@ -0,0 +1,86 @@
+package telran.students.config;
+
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.mongo.MongoClientFactory;
+import org.springframework.boot.autoconfigure.mongo.MongoClientSettingsBuilderCustomizer;
+import org.springframework.boot.autoconfigure.mongo.MongoConnectionDetails;
+import org.springframework.boot.autoconfigure.mongo.MongoProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.data.mongodb.MongoDatabaseFactory;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.SimpleMongoClientDatabaseFactory;
+import org.springframework.data.mongodb.core.convert.MongoConverter;
+
+import com.mongodb.MongoClientSettings;
+import com.mongodb.ReadPreference;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+
+import lombok.extern.slf4j.Slf4j;
+
+@Configuration
+@Slf4j
+public class MongoTemplatesConfig {
+	public static final String ANALYTICS_MONGO_TEMPLATE = "analyticsMongoTemplate";
+	public static final String ANALYTICS_MONGO_CLIENT = "analyticsMongoClient";
+	@Value("${app.mongodb.analytics.max-staleness-seconds:90}")
+	long maxStalenessSeconds;
+	@Value("${app.mongodb.analytics.max-pool-size:10}")
+	int maxPoolSize;
+
+	/**
+	 * point reads and writes - the same client as the one of Spring Boot auto-configuration
+	 * (it is not auto-configured as there is one more MongoClient bean)
+	 */
+	@Bean
+	@Primary
+	MongoClient mongoClient(ObjectProvider<MongoClientSettingsBuilderCustomizer> customizers,
+			MongoClientSettings settings) {
+		return new MongoClientFactory(customizers.orderedStream().toList()).createMongoClient(settings);
+	}
+
+	/**
+	 * point reads and writes - the same template as the one of Spring Boot auto-configuration
+	 * (primary read preference, shared connection pool)
+	 */
+	@Bean
+	@Primary
+	MongoTemplate mongoTemplate(MongoDatabaseFactory factory, MongoConverter converter) {
+		return new MongoTemplate(factory, converter);
+	}
+
+	/**
+	 * client of analytic aggregations - own connection pool,
+	 * reads from secondaries with a bounded staleness when there are any;
+	 * the same customizers (connection string, command listeners) as for the primary client
+	 */
+	@Bean(ANALYTICS_MONGO_CLIENT)
+	MongoClient analyticsMongoClient(ObjectProvider<MongoClientSettingsBuilderCustomizer> customizers) {
+		ReadPreference readPreference =
+				ReadPreference.secondaryPreferred(maxStalenessSeconds, TimeUnit.SECONDS);
+		MongoClientSettings.Builder builder = MongoClientSettings.builder();
+		customizers.orderedStream().forEach(customizer -> customizer.customize(builder));
+		MongoClientSettings settings = builder
+				.readPreference(readPreference)
+				.applyToConnectionPoolSettings(pool -> pool.maxSize(maxPoolSize))
+				.build();
+		log.debug("analytics client: read preference {}, max pool size {}", readPreference, maxPoolSize);
+		return MongoClients.create(settings);
+	}
+
+	@Bean(ANALYTICS_MONGO_TEMPLATE)
+	MongoTemplate analyticsMongoTemplate(@Qualifier(ANALYTICS_MONGO_CLIENT) MongoClient analyticsMongoClient,
+			MongoConnectionDetails connectionDetails, MongoProperties properties, MongoConverter converter) {
+		String database = properties.getDatabase() != null ? properties.getDatabase()
+				: connectionDetails.getConnectionString().getDatabase();
+		log.debug("analytics template: database {}", database);
+		return new MongoTemplate(new SimpleMongoClientDatabaseFactory(analyticsMongoClient, database),
+				converter);
+	}
+}
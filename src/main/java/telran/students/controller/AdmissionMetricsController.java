@@ -0,0 +1,21 @@
+package telran.students.controller;
+
+import java.util.List;
+
+import org.springframework.web.bind.annotation.*;
+
+import lombok.RequiredArgsConstructor;
+import telran.students.admission.AdmissionControl;
+import telran.students.dto.AdmissionMetrics;
+
+@RestController
+@RequestMapping("admin/admission")
+@RequiredArgsConstructor
+public class AdmissionMetricsController {
+	final AdmissionControl admissionControl;
+
+	@GetMapping
+	List<AdmissionMetrics> getAdmissionMetrics() {
+		return admissionControl.getMetrics();
+	}
+}
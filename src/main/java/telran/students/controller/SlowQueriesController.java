@@ -0,0 +1,26 @@
+package telran.students.controller;
+
+import java.util.List;
+
+import org.springframework.web.bind.annotation.*;
+
+import lombok.RequiredArgsConstructor;
+import telran.students.dto.SlowQuery;
+import telran.students.monitoring.SlowQueryRecorder;
+
+@RestController
+@RequestMapping("admin/slow-queries")
+@RequiredArgsConstructor
+public class SlowQueriesController {
+	final SlowQueryRecorder slowQueryRecorder;
+
+	@GetMapping
+	List<SlowQuery> getSlowQueries() {
+		return slowQueryRecorder.getSlowQueries();
+	}
+
+	@DeleteMapping
+	void clearSlowQueries() {
+		slowQueryRecorder.clear();
+	}
+}
@@ -0,0 +1,8 @@
+package telran.students.dto;
+
+import telran.students.admission.CostClass;
+
+public record AdmissionMetrics(CostClass costClass, int limit, int inFlight, int queueDepth,
+		long admitted, long rejected) {
+
+}
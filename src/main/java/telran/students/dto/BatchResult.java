@@ -0,0 +1,8 @@
+package telran.students.dto;
+
+import java.util.List;
+import java.util.Map;
+
+public record BatchResult<T>(Map<Long, T> found, List<Long> notFound) {
+
+}
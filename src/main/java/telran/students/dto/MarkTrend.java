@@ -0,0 +1,8 @@
+package telran.students.dto;
+
+import java.time.LocalDate;
+
+public record MarkTrend(long id, String subject, LocalDate date, int score,
+		double avgScore, double delta) {
+
+}
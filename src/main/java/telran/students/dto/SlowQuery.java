@@ -0,0 +1,10 @@
+package telran.students.dto;
+
+import java.time.Instant;
+
+import org.bson.Document;
+
+public record SlowQuery(Instant timestamp, String database, String commandName,
+		long durationMillis, Document command, Document explain) {
+
+}
@@ -0,0 +1,15 @@
+package telran.students.exceptions;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+import telran.students.admission.CostClass;
+import telran.students.service.ServiceErrorMessages;
+
+@SuppressWarnings("serial")
+@ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+public class ServiceOverloadedException extends RuntimeException {
+	public ServiceOverloadedException(CostClass costClass) {
+		super(ServiceErrorMessages.SERVICE_OVERLOADED + ": " + costClass);
+	}
+}
@@ -0,0 +1,196 @@
+package telran.students.monitoring;
+
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.*;
+
+import org.bson.*;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.DocumentCodec;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.mongo.MongoClientSettingsBuilderCustomizer;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Component;
+
+import com.mongodb.MongoClientSettings;
+import com.mongodb.ReadPreference;
+import com.mongodb.event.*;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import telran.students.dto.SlowQuery;
+
+/**
+ * Records Mongo commands taking more than a threshold together with
+ * the plan of the same command obtained by explain with "executionStats" verbosity.
+ * Sampled commands are kept until completion, explain is run asynchronously
+ * for at most maxPerMinute commands per minute with the read preference of the command
+ * (analytic reads are explained on a secondary), recorded entries are kept
+ * in a ring buffer of the given capacity.
+ * Each sampled command is copied on the calling thread, so sampleRate
+ * is a trade-off between the cost of every query and the chance to catch a slow one.
+ */
+@Component
+@Slf4j
+public class SlowQueryRecorder implements CommandListener, MongoClientSettingsBuilderCustomizer {
+	private static final Set<String> EXPLAINABLE_COMMANDS = Set.of("find", "aggregate", "count",
+			"distinct", "findAndModify", "update", "delete");
+	// session and cluster fields added by the driver are not accepted inside of explain
+	private static final Set<String> DRIVER_FIELDS = Set.of("lsid", "txnNumber", "autocommit",
+			"startTransaction");
+	// read preference other than primary is sent by the driver as a field of the command
+	private static final String READ_PREFERENCE_FIELD = "$readPreference";
+	private static final Set<String> REDACTED_FIELDS = Set.of("phone");
+	private static final BsonString REDACTED_VALUE = new BsonString("***");
+	private static final long MINUTE_MILLIS = 60_000;
+	final long thresholdMillis;
+	final double sampleRate;
+	final int maxPerMinute;
+	final int capacity;
+	final ObjectProvider<MongoTemplate> mongoTemplateProvider;
+	final Map<Integer, BsonDocument> sampledCommands = new ConcurrentHashMap<>();
+	final Deque<SlowQuery> slowQueries = new ArrayDeque<>();
+	final ThreadPoolExecutor explainExecutor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+			new ArrayBlockingQueue<>(10), new ThreadPoolExecutor.DiscardPolicy());
+	long minuteStart;
+	int minuteCount;
+
+	public SlowQueryRecorder(@Value("${app.mongodb.slow-query.threshold-ms:100}") long thresholdMillis,
+			@Value("${app.mongodb.slow-query.sample-rate:0.1}") double sampleRate,
+			@Value("${app.mongodb.slow-query.max-per-minute:10}") int maxPerMinute,
+			@Value("${app.mongodb.slow-query.capacity:100}") int capacity,
+			ObjectProvider<MongoTemplate> mongoTemplateProvider) {
+		this.thresholdMillis = thresholdMillis;
+		this.sampleRate = sampleRate;
+		this.maxPerMinute = maxPerMinute;
+		this.capacity = capacity;
+		this.mongoTemplateProvider = mongoTemplateProvider;
+	}
+
+	@Override
+	public void customize(MongoClientSettings.Builder builder) {
+		builder.addCommandListener(this);
+	}
+
+	@Override
+	public void commandStarted(CommandStartedEvent event) {
+		if(EXPLAINABLE_COMMANDS.contains(event.getCommandName())
+				&& ThreadLocalRandom.current().nextDouble() < sampleRate) {
+			// the command document is valid only inside of the callback
+			sampledCommands.put(event.getRequestId(), event.getCommand().clone());
+		}
+	}
+
+	@Override
+	public void commandSucceeded(CommandSucceededEvent event) {
+		BsonDocument command = sampledCommands.remove(event.getRequestId());
+		long durationMillis = event.getElapsedTime(TimeUnit.MILLISECONDS);
+		if(command != null && durationMillis >= thresholdMillis && tryAcquire()) {
+			Instant timestamp = Instant.now();
+			explainExecutor.execute(() -> record(timestamp, event.getDatabaseName(),
+					event.getCommandName(), durationMillis, command));
+		}
+	}
+
+	@Override
+	public void commandFailed(CommandFailedEvent event) {
+		sampledCommands.remove(event.getRequestId());
+	}
+
+	public List<SlowQuery> getSlowQueries() {
+		synchronized (slowQueries) {
+			return new ArrayList<>(slowQueries);
+		}
+	}
+
+	public void clear() {
+		synchronized (slowQueries) {
+			slowQueries.clear();
+		}
+	}
+
+	private synchronized boolean tryAcquire() {
+		long now = System.currentTimeMillis();
+		if(now - minuteStart >= MINUTE_MILLIS) {
+			minuteStart = now;
+			minuteCount = 0;
+		}
+		boolean res = minuteCount < maxPerMinute;
+		if(res) {
+			minuteCount++;
+		}
+		return res;
+	}
+
+	private void record(Instant timestamp, String database, String commandName,
+			long durationMillis, BsonDocument command) {
+		BsonDocument explainable = new BsonDocument();
+		command.forEach((key, value) -> {
+			if(!key.startsWith("$") && !DRIVER_FIELDS.contains(key)) {
+				explainable.put(key, value);
+			}
+		});
+		Document explain = null;
+		try {
+			BsonDocument explainCommand = new BsonDocument("explain", explainable)
+					.append("verbosity", new BsonString("executionStats"));
+			BsonDocument explainResult = mongoTemplateProvider.getObject().getMongoDatabaseFactory()
+					.getMongoDatabase(database)
+					.runCommand(explainCommand, readPreference(command), BsonDocument.class);
+			explain = toDocument(redact(explainResult));
+		} catch (RuntimeException e) {
+			log.warn("explain of {} command failed: {}", commandName, e.getMessage());
+		}
+		SlowQuery slowQuery = new SlowQuery(timestamp, database, commandName, durationMillis,
+				toDocument(redact(explainable)), explain);
+		log.debug("slow query: {} command {} ms", commandName, durationMillis);
+		synchronized (slowQueries) {
+			if(slowQueries.size() == capacity) {
+				slowQueries.removeLast();
+			}
+			slowQueries.addFirst(slowQuery);
+		}
+	}
+
+	private ReadPreference readPreference(BsonDocument command) {
+		ReadPreference res = ReadPreference.primary();
+		BsonDocument readPreference = command.getDocument(READ_PREFERENCE_FIELD, null);
+		if(readPreference != null) {
+			String mode = readPreference.getString("mode").getValue();
+			BsonValue maxStaleness = readPreference.get("maxStalenessSeconds");
+			res = maxStaleness == null ? ReadPreference.valueOf(mode)
+					: ReadPreference.valueOf(mode, List.of(), maxStaleness.asNumber().longValue(),
+							TimeUnit.SECONDS);
+		}
+		return res;
+	}
+
+	private BsonDocument redact(BsonDocument document) {
+		BsonDocument res = new BsonDocument();
+		document.forEach((key, value) -> res.put(key,
+				REDACTED_FIELDS.contains(key) ? REDACTED_VALUE : redact(value)));
+		return res;
+	}
+
+	private BsonValue redact(BsonValue value) {
+		BsonValue res = value;
+		if(value.isDocument()) {
+			res = redact(value.asDocument());
+		} else if(value.isArray()) {
+			BsonArray array = new BsonArray();
+			value.asArray().forEach(v -> array.add(redact(v)));
+			res = array;
+		}
+		return res;
+	}
+
+	private Document toDocument(BsonDocument bsonDocument) {
+		return new DocumentCodec().decode(bsonDocument.asBsonReader(), DecoderContext.builder().build());
+	}
+
+	@PreDestroy
+	void shutdown() {
+		explainExecutor.shutdownNow();
+	}
+}
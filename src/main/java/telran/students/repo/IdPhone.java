@@ -1,6 +0,0 @@
-package telran.students.repo;
-
-public interface IdPhone {
-long getId();
-String getPhone();
-}
@@ -1,11 +1,13 @@
 package telran.students.repo;
 
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 
 import org.springframework.data.mongodb.repository.MongoRepository;
 import org.springframework.data.mongodb.repository.Query;
 
+import telran.students.dto.Student;
 import telran.students.model.StudentDoc;
 
 public interface StudentRepo extends MongoRepository<StudentDoc,Long>{
@@ -13,23 +15,27 @@ public interface StudentRepo extends MongoRepository<StudentDoc,Long>{
 	StudentDoc findStudentNoMarks(long id);
 @Query(value="{id:?0}", fields = "{id:0, marks:1}")
 StudentDoc findStudentOnlyMarks(long id);
+@Query(value="{id:{$in:?0}}", fields = "{id:1, phone:1}")
+List<Student> findStudentsNoMarks(Collection<Long> ids);
+@Query(value="{id:{$in:?0}}", fields = "{id:1, marks:1}")
+List<StudentDoc> findStudentsOnlyMarks(Collection<Long> ids);
 /********************************/
-IdPhone findByPhone(String phone);
-List<IdPhone> findByPhoneRegex(String regex);
-List<IdPhone> findByMarksDate(LocalDate date);
-List<IdPhone> findByMarksDateBetween(LocalDate firstDate, LocalDate lastDate);
-List<IdPhone> findByMarksSubjectAndMarksScoreGreaterThan(String subject, int markThreshold);
+Student findByPhone(String phone);
+List<Student> findByPhoneRegex(String regex);
+List<Student> findByMarksDate(LocalDate date);
+List<Student> findByMarksDateBetween(LocalDate firstDate, LocalDate lastDate);
+List<Student> findByMarksSubjectAndMarksScoreGreaterThan(String subject, int markThreshold);
 /*******************/
 @Query("{$and:[{marks:{$elemMatch:{score:{$gt:?0}}}},{marks:{$not:{$elemMatch:{score:{$lte:?0}}}}}]}")
-List<IdPhone> findAllGoodMarks(int markThreshold);
+List<Student> findAllGoodMarks(int markThreshold);
 /**********************************************************/
 @Query("{$expr:{$lt:[{$size:$marks}, ?0]}}")
-List<IdPhone> findFewMarks(int nMarks);
+List<Student> findFewMarks(int nMarks);
 /*******************/
 @Query("{$and:[{marks:{$elemMatch:{score:{$gt:?0}, subject:?1}}},{marks:{$not:{$elemMatch:{score:{$lte:?0}, subject:?1}}}}]}")
-List<IdPhone> findAllGoodSubjectMarks(int markThreshold, String subject);
+List<Student> findAllGoodSubjectMarks(int markThreshold, String subject);
 /**********************************************************/
 @Query("{$expr:{$and:[{$gte:[{$size:$marks}, ?0]},{$lte:[{$size:$marks}, ?1]}]}}")
-List<IdPhone> findBetweenMarksAmount(int min, int max);
+List<Student> findBetweenMarksAmount(int min, int max);
 
 }
@@ -3,4 +3,6 @@ package telran.students.service;
 public interface ServiceErrorMessages {
 String STUDENT_ALREADY_EXISTS = "Student already exists";
 String STUDENT_NOT_FOUND = "Student not found";
+String SERVICE_OVERLOADED = "Service overloaded";
+String NOT_POSITIVE_DAYS_NUMBER = "Number of days must be positive";
 }
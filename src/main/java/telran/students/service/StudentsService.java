@@ -1,6 +1,7 @@
 package telran.students.service;
 
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 
 import telran.students.dto.*;
@@ -62,4 +63,44 @@ public interface StudentsService {
 	List<Mark> getStudentMarksAtDates(long id, LocalDate from, LocalDate to);
 	List<Long> getBestStudents(int nStudents);
 	List<Long> getWorstStudents(int nStudents);
+	/****************************************************************/
+	/**
+	 *
+	 * @param id
+	 * @param nDays positive number of days
+	 * @return marks of a given student ordered by subject and date, each one with
+	 * the average score of the subject over the last nDays ending on the date of the mark
+	 * (rolling average) and the change of that average relative to the previous mark of the subject
+	 */
+	List<MarkTrend> getStudentMarksTrend(long id, int nDays);
+	/**
+	 *
+	 * @param ids
+	 * @param nDays
+	 * @return the same as getStudentMarksTrend for all given students
+	 * computed by one aggregation, ordered by id, subject and date
+	 */
+	List<MarkTrend> getStudentsMarksTrend(Collection<Long> ids, int nDays);
+	/****************************************************************/
+	/**
+	 * 
+	 * @param ids
+	 * @return students of given ids keyed by id, ids of not existing students in notFound
+	 */
+	BatchResult<Student> getStudents(Collection<Long> ids);
+	/**
+	 * 
+	 * @param ids
+	 * @return marks of students of given ids keyed by id, ids of not existing students in notFound
+	 */
+	BatchResult<List<Mark>> getMarks(Collection<Long> ids);
+	/**
+	 * 
+	 * @param ids
+	 * @param from
+	 * @param to
+	 * @return marks on the dates in a closed range [from, to] of students of given ids keyed by id,
+	 * ids of not existing students in notFound
+	 */
+	BatchResult<List<Mark>> getStudentMarksAtDates(Collection<Long> ids, LocalDate from, LocalDate to);
 }
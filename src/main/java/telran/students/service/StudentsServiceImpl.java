@@ -3,28 +3,38 @@ package telran.students.service;
 import java.time.LocalDate;
 import java.time.ZoneId;
 import java.time.temporal.TemporalAdjusters;
-import java.util.Arrays;
-import java.util.List;
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 import org.bson.Document;
+import org.bson.codecs.Codec;
+import org.bson.codecs.configuration.CodecRegistries;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.dao.DuplicateKeyException;
 import org.springframework.data.domain.Sort.Direction;
 import org.springframework.data.mongodb.core.FindAndModifyOptions;
 import org.springframework.data.mongodb.core.MongoTemplate;
 import org.springframework.data.mongodb.core.aggregation.*;
+import org.springframework.data.mongodb.core.convert.QueryMapper;
 import org.springframework.data.mongodb.core.query.*;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import telran.students.admission.Admission;
+import telran.students.admission.CostClass;
+import telran.students.codecs.*;
+import telran.students.config.MongoTemplatesConfig;
+import telran.students.dto.BatchResult;
 import telran.students.dto.Mark;
+import telran.students.dto.MarkTrend;
 import telran.students.dto.Student;
 import telran.students.dto.StudentAvgScore;
 import telran.students.exceptions.StudentIllegalStateException;
 import telran.students.exceptions.StudentNotFoundException;
 import telran.students.model.StudentDoc;
-import telran.students.repo.IdPhone;
 import telran.students.repo.StudentRepo;
 @Service
 @RequiredArgsConstructor
@@ -42,11 +52,19 @@ public class StudentsServiceImpl implements StudentsService {
 	private static final String MARKS_DATE_FIELD = "marks.date";
 	private static final String SCORE_FIELD = "score";
 	private static final String DATE_FIELD = "date";
+	private static final String SUBJECT_FIELD = "subject";
+	private static final String PREV_AVG_SCORE_FIELD = "prevAvgScore";
+	private static final String DELTA_FIELD = "delta";
+	private static final String MARK_VARIABLE = "mark";
+	private static final int IDS_CHUNK_SIZE = 1000;
 	final StudentRepo studentRepo;
 	final MongoTemplate mongoTemplate;
+	// heavy aggregations are routed to secondaries so they don't compete with point reads and writes
+	@Qualifier(MongoTemplatesConfig.ANALYTICS_MONGO_TEMPLATE)
+	final MongoTemplate analyticsMongoTemplate;
 	FindAndModifyOptions options = new FindAndModifyOptions().returnNew(true).upsert(false);
 	@Override
-
+	@Admission(CostClass.WRITE)
 	public Student addStudent(Student student) {
 		long id = student.id();
 		try {
@@ -60,6 +78,7 @@ public class StudentsServiceImpl implements StudentsService {
 	}
 
 	@Override
+	@Admission(CostClass.WRITE)
 	public Mark addMark(long id, Mark mark) {
 		Query query = new Query(Criteria.where(ID_FIELD).is(id));
 		Update update = new Update();
@@ -75,6 +94,7 @@ public class StudentsServiceImpl implements StudentsService {
 
 	@Override
 	@Transactional
+	@Admission(CostClass.WRITE)
 	public Student updatePhoneNumber(long id, String phoneNumber) {
 		StudentDoc studentDoc = studentRepo.findById(id)
 				.orElseThrow(() -> new StudentNotFoundException());
@@ -87,6 +107,7 @@ public class StudentsServiceImpl implements StudentsService {
 	}
 
 	@Override
+	@Admission(CostClass.WRITE)
 	public Student removeStudent(long id) {
 		Query query = new Query(Criteria.where(ID_FIELD).is(id));
 		StudentDoc studentDoc = mongoTemplate.findAndRemove(query, StudentDoc.class);
@@ -99,6 +120,7 @@ public class StudentsServiceImpl implements StudentsService {
 	}
 
 	@Override
+	@Admission(CostClass.POINT_READ)
 	public Student getStudent(long id) {
 		StudentDoc studentDoc = studentRepo.findStudentNoMarks(id);
 		if(studentDoc == null) {
@@ -111,6 +133,7 @@ public class StudentsServiceImpl implements StudentsService {
 	}
 
 	@Override
+	@Admission(CostClass.POINT_READ)
 	public List<Mark> getMarks(long id) {
 		StudentDoc studentDoc = studentRepo.findStudentOnlyMarks(id);
 		if(studentDoc == null) {
@@ -124,74 +147,66 @@ public class StudentsServiceImpl implements StudentsService {
 	}
 
 	@Override
+	@Admission(CostClass.ANALYTICS)
 	public List<Student> getStudentsAllGoodMarks(int markThreshold) {
-		List<IdPhone> idPhones = studentRepo.findAllGoodMarks(markThreshold);
-		List<Student> res = idPhonesToStudents(idPhones);
+		List<Student> res = studentRepo.findAllGoodMarks(markThreshold);
 		log.debug("students having marks greater than {} are {}", markThreshold, res);
 		return res;
 	}
 
 	@Override
+	@Admission(CostClass.ANALYTICS)
 	public List<Student> getStudentsFewMarks(int nMarks) {
-		List<IdPhone> idPhones = studentRepo.findFewMarks(nMarks);
-		List<Student> res = idPhonesToStudents(idPhones);
+		List<Student> res = studentRepo.findFewMarks(nMarks);
 		log.debug("student having amount of marks less than {} are {}",nMarks, res );
 		return res;
 	}
 
 	@Override
+	@Admission(CostClass.POINT_READ)
 	public Student getStudentByPhoneNumber(String phoneNumber) {
-		IdPhone idPhone = studentRepo.findByPhone(phoneNumber);
-		
-		Student res = null;
-		if(idPhone != null) {
-			res = new Student(idPhone.getId(), idPhone.getPhone());
-		}
+		Student res = studentRepo.findByPhone(phoneNumber);
 		log.debug("student {}", res);
 		return res;
 	}
 
 	@Override
+	@Admission(CostClass.ANALYTICS)
 	public List<Student> getStudentsByPhonePrefix(String prefix) {
-		List<IdPhone> idPhones = studentRepo.findByPhoneRegex(prefix + ".+");
-		List<Student> res = idPhonesToStudents(idPhones);
+		List<Student> res = studentRepo.findByPhoneRegex(prefix + ".+");
 		log.debug("students {}", res);
 		return res;
 	}
 
-	private List<Student> idPhonesToStudents(List<IdPhone> idPhones) {
-		return idPhones.stream()
-				.map(ip -> new Student(ip.getId(), ip.getPhone())).toList();
-	}
-
 	@Override
+	@Admission(CostClass.ANALYTICS)
 	public List<Student> getStudentsMarksDate(LocalDate date) {
-		List<IdPhone> idPhones = studentRepo.findByMarksDate(date);
-		List<Student> res = idPhonesToStudents(idPhones);
+		List<Student> res = studentRepo.findByMarksDate(date);
 		log.debug("Students having a mark on date {} are {}", date, res);
 		return res;
 	}
 
 	@Override
+	@Admission(CostClass.ANALYTICS)
 	public List<Student> getStudentsMarksMonthYear(int month, int year) {
 		LocalDate firstDate = LocalDate.of(year, month, 1);
 		LocalDate lastDate = firstDate.with(TemporalAdjusters.lastDayOfMonth());
-		List<IdPhone> idPhones = studentRepo.findByMarksDateBetween(firstDate, lastDate);
-		List<Student> res = idPhonesToStudents(idPhones);
+		List<Student> res = studentRepo.findByMarksDateBetween(firstDate, lastDate);
 		log.debug("students having marks on month {} of year {} are {}", month, year, res);
 		return res;
 	}
 
 	@Override
+	@Admission(CostClass.ANALYTICS)
 	public List<Student> getStudentsGoodSubjectMark(String subject, int markThreshold) {
-		List<IdPhone> idPhones = studentRepo.findByMarksSubjectAndMarksScoreGreaterThan(subject, markThreshold);
-		List<Student> res = idPhonesToStudents(idPhones);
+		List<Student> res = studentRepo.findByMarksSubjectAndMarksScoreGreaterThan(subject, markThreshold);
 		log.debug("students having marks on subject {} better than {} are {}", subject,
 				markThreshold);
 		return res;
 	}
 
 	@Override
+	@Admission(CostClass.POINT_READ)
 	public List<Mark> getStudentMarksSubject(long id, String subject) {
 		MatchOperation matchSubject =
 				Aggregation.match(Criteria.where(MARKS_SUBJECT_FIELD).is(subject));
@@ -212,20 +227,18 @@ public class StudentsServiceImpl implements StudentsService {
 				MARKS_SCORE_FIELD, MARKS_DATE_FIELD);
 		Aggregation pipeline = Aggregation.newAggregation(matchStudentOperation,
 				unwindOperation, matchMarks,projectOperation);
-		var aggregationResult = mongoTemplate.aggregate(pipeline, StudentDoc.class,
-				Document.class);
-		List<Document> documents = aggregationResult.getMappedResults();
-		log.debug("received {} documents", documents.size());
-		List<Mark> res = documents.stream()
-				.map(d -> new Mark(d.getString("subject"), d.getInteger(SCORE_FIELD),
-						d.getDate(DATE_FIELD).toInstant()
-					      .atZone(ZoneId.systemDefault())
-					      .toLocalDate()))
-				.toList();
+		List<Mark> res = aggregate(mongoTemplate, pipeline, new MarkCodec());
+		log.debug("received {} marks", res.size());
 		return res;
 	}
 
+	private Date toDate(LocalDate localDate) {
+		// the same conversion as the one applied by Spring Data for LocalDate fields
+		return Date.from(localDate.atStartOfDay(ZoneId.systemDefault()).toInstant());
+	}
+
 	@Override
+	@Admission(CostClass.ANALYTICS)
 	public List<StudentAvgScore> getStudentsAvgScoreGreater(int avgThreshold) {
 		UnwindOperation unwindOperation = Aggregation.unwind(MARKS_FIELD);
 		GroupOperation groupOperation = Aggregation.group(ID_FIELD).avg(MARKS_SCORE_FIELD)
@@ -235,38 +248,35 @@ public class StudentsServiceImpl implements StudentsService {
 		SortOperation sortOperation = Aggregation.sort(Direction.DESC, AVG_SCORE_FIELD);
 		Aggregation pipeline = Aggregation.newAggregation(unwindOperation, groupOperation,
 				matchOperation, sortOperation);
-		var aggregationResult = mongoTemplate.aggregate(pipeline, StudentDoc.class, Document.class);
-		List<Document> documents = aggregationResult.getMappedResults();
-		List<StudentAvgScore> res =
-				documents.stream()
-				.map(d -> new StudentAvgScore(d.getLong(ID_DOCUMENT_FIELD), d.getDouble(AVG_SCORE_FIELD).intValue()))
-				.toList();
+		List<StudentAvgScore> res = aggregate(analyticsMongoTemplate, pipeline,
+				new StudentAvgScoreCodec());
 		log.debug("students with avg scores greater than {} are {}", avgThreshold, res);
 		return res;
 	}
 
 	@Override
+	@Admission(CostClass.ANALYTICS)
 	public List<Student> getStudentsAllGoodMarksSubject(String subject, int thresholdScore) {
 		// the same as the method getStudentsAllGoodMarks but for a given subject
 		// consider additional condition for "subject" in the query object
-		List<IdPhone> idPhones = studentRepo.findAllGoodSubjectMarks(thresholdScore, subject);
-		List<Student> res = idPhonesToStudents(idPhones);
+		List<Student> res = studentRepo.findAllGoodSubjectMarks(thresholdScore, subject);
 		log.debug("students having all marks of the subject {} greater than {} are {}", subject, thresholdScore, res);
 		return res;
 	}
 
 	@Override
+	@Admission(CostClass.ANALYTICS)
 	public List<Student> getStudentsMarksAmountBetween(int min, int max) {
 		//get students having amount of marks in the closed range [min, max]
 		// consider using operator $and inside $expr object like $expr:{$and:[{....},{...}]
-		//{....} - contains the object similar to the query of repository method List<IdPhone> findFewMarks(int nMarks);
-		List<IdPhone> idPhones = studentRepo.findBetweenMarksAmount(min, max);
-		List<Student> res = idPhonesToStudents(idPhones);
+		//{....} - contains the object similar to the query of repository method List<Student> findFewMarks(int nMarks);
+		List<Student> res = studentRepo.findBetweenMarksAmount(min, max);
 		log.debug("students having amount of marks greater than {} but less than {} are {}",min, max, res );
 		return res;
 	}
 
 	@Override
+	@Admission(CostClass.POINT_READ)
 	public List<Mark> getStudentMarksAtDates(long id, LocalDate from, LocalDate to) {
 		// gets only marks on the dates in a closed range [from, to]
 		// of a given student (the same as getStudentsMarksSubject just different match operation
@@ -279,6 +289,7 @@ public class StudentsServiceImpl implements StudentsService {
 	}
 
 	@Override
+	@Admission(CostClass.ANALYTICS)
 	public List<Long> getBestStudents(int nStudents) {
 		//gets list of a given number of the best student id's
 		//Best students are the ones who have most scores greater than 80
@@ -295,7 +306,7 @@ public class StudentsServiceImpl implements StudentsService {
 		ProjectionOperation projectionOperation = Aggregation.project(ID_FIELD);
 		Aggregation pipeline = Aggregation.newAggregation(unwindOperation,
 				matchOperation, groupOperation, sortOperation, limitOperation, projectionOperation);
-		var aggregationResult = mongoTemplate.aggregate(pipeline, StudentDoc.class, Document.class);
+		var aggregationResult = analyticsMongoTemplate.aggregate(pipeline, StudentDoc.class, Document.class);
 		List<Document> documents = aggregationResult.getMappedResults();
 		List<Long> res =
 				documents.stream()
@@ -306,6 +317,7 @@ public class StudentsServiceImpl implements StudentsService {
 	}
 
 	@Override
+	@Admission(CostClass.ANALYTICS)
 	public List<Long> getWorstStudents(int nStudents) {
 		// gets list of a given number of the worst student id's
 		//Worst students are the ones who have least sum's of all scores
@@ -321,11 +333,151 @@ public class StudentsServiceImpl implements StudentsService {
 		ProjectionOperation projectionOperationOnlyId = Aggregation.project(ID_FIELD);
 		Aggregation pipeLine = Aggregation.newAggregation
 				( projectionOperation,sortOperation, limitOperation, projectionOperationOnlyId);
-		List<Long> res = mongoTemplate.aggregate(pipeLine, StudentDoc.class, Document.class)
+		List<Long> res = analyticsMongoTemplate.aggregate(pipeLine, StudentDoc.class, Document.class)
 				.getMappedResults().stream().map(d -> d.getLong(ID_FIELD)).toList();
 		log.debug("{} worst students are {}", nStudents, res);
 		return res;
 	}
-	
+
+	@Override
+	@Admission(CostClass.POINT_READ)
+	public List<MarkTrend> getStudentMarksTrend(long id, int nDays) {
+		if(!studentRepo.existsById(id)) {
+			throw new StudentNotFoundException();
+		}
+		List<MarkTrend> res = getMarksTrend(mongoTemplate, Criteria.where(ID_FIELD).is(id), nDays);
+		log.debug("marks trend of student {} for {} days are {}", id, nDays, res);
+		return res;
+	}
+
+	@Override
+	@Admission(CostClass.ANALYTICS)
+	public List<MarkTrend> getStudentsMarksTrend(Collection<Long> ids, int nDays) {
+		List<MarkTrend> res = getMarksTrend(analyticsMongoTemplate, Criteria.where(ID_FIELD).in(ids), nDays);
+		log.debug("marks trend of students {} for {} days are {}", ids, nDays, res);
+		return res;
+	}
+
+	private List<MarkTrend> getMarksTrend(MongoTemplate template, Criteria studentsCriteria, int nDays) {
+		// rolling average is computed by $setWindowFields per student and subject
+		// over a range window of nDays ending on the date of each mark (inclusive);
+		// delta is computed by the second $setWindowFields with $shift
+		// taking the rolling average of the previous mark of the same subject
+		if(nDays < 1) {
+			throw new IllegalArgumentException(ServiceErrorMessages.NOT_POSITIVE_DAYS_NUMBER);
+		}
+		MatchOperation matchStudentsOperation = Aggregation.match(studentsCriteria);
+		UnwindOperation unwindOperation = Aggregation.unwind(MARKS_FIELD);
+		Document partitionBy = new Document(ID_DOCUMENT_FIELD, "$" + ID_DOCUMENT_FIELD)
+				.append(SUBJECT_FIELD, "$" + MARKS_SUBJECT_FIELD);
+		Document sortByDate = new Document(MARKS_DATE_FIELD, 1);
+		// the stages are defined as plain documents: SetWindowFieldsOperation renders
+		// the window bounds as Object[] having no codec in the driver, and fields computed
+		// by $setWindowFields are exposed as the group ones ($_id.<field>)
+		Document window = new Document("range", List.of(-(nDays - 1), "current"))
+				.append("unit", "day");
+		AggregationOperation avgOperation = Aggregation.stage(new Document("$setWindowFields",
+				new Document("partitionBy", partitionBy)
+				.append("sortBy", sortByDate)
+				.append("output", new Document(AVG_SCORE_FIELD,
+						new Document("$avg", "$" + MARKS_SCORE_FIELD).append("window", window)))));
+		String avgScoreRef = "$" + AVG_SCORE_FIELD;
+		AggregationOperation prevAvgOperation = Aggregation.stage(new Document("$setWindowFields",
+				new Document("partitionBy", partitionBy)
+				.append("sortBy", sortByDate)
+				.append("output", new Document(PREV_AVG_SCORE_FIELD,
+						new Document("$shift", new Document("output", avgScoreRef).append("by", -1))))));
+		Document delta = new Document("$subtract", List.of(avgScoreRef,
+				new Document("$ifNull", List.of("$" + PREV_AVG_SCORE_FIELD, avgScoreRef))));
+		AggregationOperation projectionOperation = Aggregation.stage(new Document("$project",
+				new Document(SUBJECT_FIELD, "$" + MARKS_SUBJECT_FIELD)
+				.append(SCORE_FIELD, "$" + MARKS_SCORE_FIELD)
+				.append(DATE_FIELD, "$" + MARKS_DATE_FIELD)
+				.append(AVG_SCORE_FIELD, 1)
+				.append(DELTA_FIELD, delta)));
+		SortOperation sortOperation = Aggregation.sort(Direction.ASC, ID_DOCUMENT_FIELD,
+				SUBJECT_FIELD, DATE_FIELD);
+		Aggregation pipeline = Aggregation.newAggregation(matchStudentsOperation, unwindOperation,
+				avgOperation, prevAvgOperation, projectionOperation, sortOperation);
+		return aggregate(template, pipeline, new MarkTrendCodec());
+	}
+
+	private <T> List<T> aggregate(MongoTemplate template, Aggregation pipeline, Codec<T> codec) {
+		// the pipeline is rendered the same way as by MongoTemplate.aggregate
+		// but the results are decoded by the codec straight from BSON
+		// instead of org.bson.Document objects mapped by the converter
+		AggregationOperationContext context = new RelaxedTypeBasedAggregationOperationContext(
+				StudentDoc.class, template.getConverter().getMappingContext(),
+				new QueryMapper(template.getConverter()));
+		List<Document> stages = pipeline.toPipeline(context);
+		return template.execute(StudentDoc.class, collection -> collection
+				.withCodecRegistry(CodecRegistries.fromRegistries(CodecRegistries.fromCodecs(codec),
+						collection.getCodecRegistry()))
+				.aggregate(stages, codec.getEncoderClass())
+				.into(new ArrayList<>()));
+	}
+
+	@Override
+	@Admission(CostClass.ANALYTICS)
+	public BatchResult<Student> getStudents(Collection<Long> ids) {
+		BatchResult<Student> res = getBatch(ids, chunk -> studentRepo.findStudentsNoMarks(chunk).stream().collect(Collectors.toMap(Student::id, s -> s)));
+		log.debug("found students {}, not found ids {}", res.found().values(), res.notFound());
+		return res;
+	}
+
+	@Override
+	@Admission(CostClass.ANALYTICS)
+	public BatchResult<List<Mark>> getMarks(Collection<Long> ids) {
+		BatchResult<List<Mark>> res = getBatch(ids, chunk -> studentDocsToMarks(studentRepo.findStudentsOnlyMarks(chunk)));
+		log.debug("found marks {}, not found ids {}", res.found(), res.notFound());
+		return res;
+	}
+
+	@Override
+	@Admission(CostClass.ANALYTICS)
+	public BatchResult<List<Mark>> getStudentMarksAtDates(Collection<Long> ids, LocalDate from, LocalDate to) {
+		// unlike getStudentMarks there is no unwind: marks are filtered inside of each document
+		// so that students having no marks on the dates still appear in the result
+		AggregationExpression marksFilter = ArrayOperators.Filter.filter(MARKS_FIELD).as(MARK_VARIABLE)
+				.by(BooleanOperators.And.and(
+						ComparisonOperators.valueOf(MARK_VARIABLE + "." + DATE_FIELD)
+						.greaterThanEqualToValue(toDate(from)),
+						ComparisonOperators.valueOf(MARK_VARIABLE + "." + DATE_FIELD)
+						.lessThanEqualToValue(toDate(to))));
+		ProjectionOperation projectionOperation = Aggregation.project().and(marksFilter).as(MARKS_FIELD);
+		BatchResult<List<Mark>> res = getBatch(ids, chunk -> {
+			Aggregation pipeline = Aggregation.newAggregation(
+					Aggregation.match(Criteria.where(ID_FIELD).in(chunk)), projectionOperation);
+			return studentDocsToMarks(mongoTemplate.aggregate(pipeline, StudentDoc.class, StudentDoc.class)
+					.getMappedResults());
+		});
+		log.debug("marks on dates [{}-{}] are {}, not found ids {}", from, to, res.found(), res.notFound());
+		return res;
+	}
+
+	private Map<Long, List<Mark>> studentDocsToMarks(List<StudentDoc> studentDocs) {
+		return studentDocs.stream().collect(Collectors.toMap(StudentDoc::getId, StudentDoc::getMarks));
+	}
+
+	private <T> BatchResult<T> getBatch(Collection<Long> ids, Function<List<Long>, Map<Long, T>> chunkQuery) {
+		// one $in query per chunk of at most IDS_CHUNK_SIZE ids
+		List<Long> distinctIds = ids.stream().distinct().toList();
+		Map<Long, T> queried = new HashMap<>();
+		for (int from = 0; from < distinctIds.size(); from += IDS_CHUNK_SIZE) {
+			List<Long> chunk = distinctIds.subList(from, Math.min(from + IDS_CHUNK_SIZE, distinctIds.size()));
+			queried.putAll(chunkQuery.apply(chunk));
+		}
+		Map<Long, T> found = new LinkedHashMap<>();
+		List<Long> notFound = new ArrayList<>();
+		distinctIds.forEach(id -> {
+			T value = queried.get(id);
+			if(value == null) {
+				notFound.add(id);
+			} else {
+				found.put(id, value);
+			}
+		});
+		return new BatchResult<>(found, notFound);
+	}
 
 }
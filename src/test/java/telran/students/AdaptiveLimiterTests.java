@@ -0,0 +1,122 @@
+package telran.students;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.Duration;
+import java.util.concurrent.*;
+
+import org.junit.jupiter.api.Test;
+
+import telran.students.admission.*;
+import telran.students.dto.AdmissionMetrics;
+import telran.students.exceptions.ServiceOverloadedException;
+
+class AdaptiveLimiterTests {
+	private static final Duration QUEUE_TIMEOUT = Duration.ofMillis(100);
+	private static final Duration TARGET_LATENCY = Duration.ofMillis(10);
+
+	private AdaptiveLimiter limiter(int initialLimit, int maxQueue) {
+		return new AdaptiveLimiter(CostClass.ANALYTICS, new AdmissionProperties.Limits(initialLimit,
+				1, 2 * initialLimit, maxQueue, QUEUE_TIMEOUT, TARGET_LATENCY));
+	}
+
+	@Test
+	void queueFullRejectedTest() {
+		AdaptiveLimiter limiter = limiter(1, 0);
+		limiter.acquire();
+		assertThrowsExactly(ServiceOverloadedException.class, limiter::acquire);
+		assertEquals(new AdmissionMetrics(CostClass.ANALYTICS, 1, 1, 0, 1, 1), limiter.getMetrics());
+	}
+
+	@Test
+	void deadlineRejectedTest() {
+		AdaptiveLimiter limiter = limiter(1, 1);
+		limiter.acquire();
+		long start = System.nanoTime();
+		assertThrowsExactly(ServiceOverloadedException.class, limiter::acquire);
+		assertTrue(System.nanoTime() - start >= QUEUE_TIMEOUT.toNanos());
+		assertEquals(0, limiter.getMetrics().queueDepth());
+		assertEquals(1, limiter.getMetrics().rejected());
+	}
+
+	@Test
+	void queuedAdmittedAfterReleaseTest() throws Exception {
+		AdaptiveLimiter limiter = limiter(1, 1);
+		limiter.acquire();
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		try {
+			Future<?> queued = executor.submit(limiter::acquire);
+			while (limiter.getMetrics().queueDepth() == 0) {
+				Thread.sleep(1);
+			}
+			limiter.release(1, TimeUnit.MILLISECONDS);
+			queued.get(1, TimeUnit.SECONDS);
+		} finally {
+			executor.shutdown();
+		}
+		AdmissionMetrics metrics = limiter.getMetrics();
+		assertEquals(1, metrics.inFlight());
+		assertEquals(2, metrics.admitted());
+		assertEquals(0, metrics.rejected());
+	}
+
+	@Test
+	void adaptiveLimitTest() {
+		AdaptiveLimiter limiter = limiter(10, 0);
+		limiter.acquire();
+		limiter.release(TARGET_LATENCY.toMillis() * 2, TimeUnit.MILLISECONDS);
+		assertEquals(9, limiter.getMetrics().limit());
+		// the limit is increased only by the calls at the limit
+		limiter.acquire();
+		limiter.release(1, TimeUnit.MILLISECONDS);
+		assertEquals(9, limiter.getMetrics().limit());
+		// each call at the limit increases it by 1 / limit
+		for (int i = 0; i < 9; i++) {
+			limiter.acquire();
+		}
+		for (int i = 0; i < 10; i++) {
+			limiter.release(1, TimeUnit.MILLISECONDS);
+			limiter.acquire();
+		}
+		assertEquals(10, limiter.getMetrics().limit());
+	}
+
+	@Test
+	void newCallsNotAheadOfQueuedTest() throws Exception {
+		AdaptiveLimiter limiter = limiter(1, 2);
+		limiter.acquire();
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		try {
+			Future<?> queued = executor.submit(limiter::acquire);
+			while (limiter.getMetrics().queueDepth() == 0) {
+				Thread.sleep(1);
+			}
+			// slow call keeps the limit at minimal 1
+			limiter.release(TARGET_LATENCY.toMillis() * 2, TimeUnit.MILLISECONDS);
+			// the released slot belongs to the queued call, the new one waits behind it
+			assertThrowsExactly(ServiceOverloadedException.class, limiter::acquire);
+			queued.get(1, TimeUnit.SECONDS);
+		} finally {
+			executor.shutdown();
+		}
+		assertEquals(new AdmissionMetrics(CostClass.ANALYTICS, 1, 1, 0, 2, 1), limiter.getMetrics());
+	}
+
+	@Test
+	void slowBurstDecreasesOnceTest() throws Exception {
+		AdaptiveLimiter limiter = limiter(10, 0);
+		for (int i = 0; i < 10; i++) {
+			limiter.acquire();
+		}
+		for (int i = 0; i < 10; i++) {
+			limiter.release(TARGET_LATENCY.toMillis() * 2, TimeUnit.MILLISECONDS);
+		}
+		assertEquals(9, limiter.getMetrics().limit());
+		// a slow call started after the decrease decreases the limit again
+		limiter.acquire();
+		long start = System.nanoTime();
+		Thread.sleep(TARGET_LATENCY.toMillis() * 2);
+		limiter.release(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+		assertEquals(8, limiter.getMetrics().limit());
+	}
+}
@@ -0,0 +1,73 @@
+package telran.students;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static telran.students.TestDb.*;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import telran.students.admission.*;
+import telran.students.dto.AdmissionMetrics;
+import telran.students.service.StudentsService;
+
+@SpringBootTest(properties = "app.admission.classes.write.max-queue=5")
+class AdmissionControlTests {
+	@Autowired
+	StudentsService studentsService;
+	@Autowired
+	AdmissionControl admissionControl;
+	@Autowired
+	AdmissionProperties admissionProperties;
+	@Autowired
+	TestDb testDb;
+	@BeforeEach
+	void setUp() {
+		testDb.createDb();
+	}
+
+	@Test
+	void studentsServiceProxiedTest() {
+		assertTrue(AopUtils.isAopProxy(studentsService));
+	}
+
+	@Test
+	void callsAdmittedByCostClassTest() {
+		assertAdmitted(CostClass.POINT_READ, () -> studentsService.getStudent(ID1));
+		assertAdmitted(CostClass.WRITE, () -> studentsService.addMark(ID1, markNotExist));
+		assertAdmitted(CostClass.ANALYTICS, () -> studentsService.getStudentsAllGoodMarks(70));
+		// batches run a query per chunk of ids, so they are limited as the analytic calls
+		assertAdmitted(CostClass.ANALYTICS, () -> studentsService.getStudents(List.of(ID1, ID2)));
+	}
+
+	@Test
+	void partialLimitsMergedWithDefaultsTest() {
+		assertEquals(new AdmissionProperties.Limits(20, 5, 100, 5, Duration.ofSeconds(1),
+				Duration.ofMillis(100)), admissionProperties.getLimits(CostClass.WRITE));
+		assertEquals(20, getMetrics().get(CostClass.WRITE).limit());
+	}
+
+	private void assertAdmitted(CostClass costClass, Runnable call) {
+		Map<CostClass, AdmissionMetrics> before = getMetrics();
+		call.run();
+		Map<CostClass, AdmissionMetrics> after = getMetrics();
+		for (CostClass cc : CostClass.values()) {
+			assertEquals(before.get(cc).admitted() + (cc == costClass ? 1 : 0), after.get(cc).admitted(),
+					cc.toString());
+			assertEquals(0, after.get(cc).inFlight());
+		}
+	}
+
+	private Map<CostClass, AdmissionMetrics> getMetrics() {
+		return admissionControl.getMetrics().stream()
+				.collect(Collectors.toMap(AdmissionMetrics::costClass, Function.identity()));
+	}
+}
@@ -0,0 +1,143 @@
+package telran.students;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.lang.management.ManagementFactory;
+import java.time.ZoneId;
+import java.util.*;
+import java.util.function.Function;
+
+import org.bson.*;
+import org.bson.codecs.*;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.convert.*;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import org.springframework.data.projection.EntityProjection;
+import org.springframework.data.projection.EntityProjectionIntrospector;
+
+import lombok.extern.slf4j.Slf4j;
+import telran.students.codecs.*;
+import telran.students.dto.*;
+import telran.students.model.StudentDoc;
+
+/**
+ * Allocation benchmark: bytes allocated per returned row by decoding of the same batch of BSON rows
+ * (as the driver decodes a cursor batch) before (interface projection, Document per row)
+ * and after (dto projection, codecs); the numbers are logged,
+ * not run by default, see profile benchmark in pom.xml
+ */
+@Slf4j
+@Tag("benchmark")
+class MappingAllocationTests {
+	private static final int N_ROWS = 10_000;
+	private static final int N_WARMUP = 20;
+	private static final String BATCH_FIELD = "firstBatch";
+	interface IdPhone {
+		long getId();
+		String getPhone();
+	}
+	static com.sun.management.ThreadMXBean threadMXBean =
+			(com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+	static MappingMongoConverter converter;
+	static EntityProjectionIntrospector introspector;
+	static DocumentCodec documentCodec = new DocumentCodec();
+	static DecoderContext decoderContext = DecoderContext.builder().build();
+
+	@BeforeAll
+	static void setUp() {
+		// the same converter setup as the one of Spring Boot auto-configuration
+		MongoCustomConversions conversions = new MongoCustomConversions(List.of());
+		MongoMappingContext mappingContext = new MongoMappingContext();
+		mappingContext.setSimpleTypeHolder(conversions.getSimpleTypeHolder());
+		converter = new MappingMongoConverter(NoOpDbRefResolver.INSTANCE, mappingContext);
+		converter.setCustomConversions(conversions);
+		converter.afterPropertiesSet();
+		introspector = EntityProjectionIntrospector.create(converter.getProjectionFactory(),
+				EntityProjectionIntrospector.ProjectionPredicate.typeHierarchy()
+				.and((target, underlyingType) -> !conversions.isSimpleType(target)),
+				mappingContext);
+	}
+
+	@Test
+	void studentsMappingTest() {
+		RawBsonDocument rows = batch(i -> new Document("_id", i).append("phone", "051-" + i));
+		EntityProjection<IdPhone, StudentDoc> idPhoneProjection =
+				introspector.introspect(IdPhone.class, StudentDoc.class);
+		EntityProjection<Student, StudentDoc> studentProjection =
+				introspector.introspect(Student.class, StudentDoc.class);
+		long before = bytesPerRow(rows, reader -> {
+			IdPhone idPhone = converter.project(idPhoneProjection, toDocument(reader));
+			return new Student(idPhone.getId(), idPhone.getPhone());
+		});
+		long after = bytesPerRow(rows, reader -> converter.project(studentProjection, toDocument(reader)));
+		log.info("Student: {} bytes per row before, {} bytes per row after", before, after);
+	}
+
+	@Test
+	void avgScoresMappingTest() {
+		RawBsonDocument rows = batch(i -> new Document("_id", i).append("avgScore", 80.5));
+		StudentAvgScoreCodec codec = new StudentAvgScoreCodec();
+		long before = bytesPerRow(rows, reader -> {
+			Document d = toDocument(reader);
+			return new StudentAvgScore(d.getLong("_id"), d.getDouble("avgScore").intValue());
+		});
+		long after = bytesPerRow(rows, reader -> codec.decode(reader, decoderContext));
+		log.info("StudentAvgScore: {} bytes per row before, {} bytes per row after", before, after);
+	}
+
+	@Test
+	void marksMappingTest() {
+		RawBsonDocument rows = batch(i -> new Document("_id", i).append("subject", "Subject1")
+				.append("score", 70).append("date", new Date()));
+		MarkCodec codec = new MarkCodec();
+		long before = bytesPerRow(rows, reader -> {
+			Document d = toDocument(reader);
+			return new Mark(d.getString("subject"), d.getInteger("score"),
+					d.getDate("date").toInstant().atZone(ZoneId.systemDefault()).toLocalDate());
+		});
+		long after = bytesPerRow(rows, reader -> codec.decode(reader, decoderContext));
+		log.info("Mark: {} bytes per row before, {} bytes per row after", before, after);
+	}
+
+	private RawBsonDocument batch(Function<Long, Document> rowFunction) {
+		List<Document> rows = new ArrayList<>(N_ROWS);
+		for (long i = 0; i < N_ROWS; i++) {
+			rows.add(rowFunction.apply(i));
+		}
+		return new RawBsonDocument(new Document(BATCH_FIELD, rows), documentCodec);
+	}
+
+	private Document toDocument(BsonReader reader) {
+		return documentCodec.decode(reader, decoderContext);
+	}
+
+	private long bytesPerRow(RawBsonDocument batch, Function<BsonReader, Object> mapper) {
+		for (int i = 0; i < N_WARMUP; i++) {
+			decodeBatch(batch, mapper);
+		}
+		long threadId = Thread.currentThread().getId();
+		long allocatedBefore = threadMXBean.getThreadAllocatedBytes(threadId);
+		Object last = decodeBatch(batch, mapper);
+		long res = (threadMXBean.getThreadAllocatedBytes(threadId) - allocatedBefore) / N_ROWS;
+		assertNotNull(last);
+		return res;
+	}
+
+	private Object decodeBatch(RawBsonDocument batch, Function<BsonReader, Object> mapper) {
+		Object res = null;
+		// binary reader as the one of the driver, RawBsonDocument.asBsonReader decodes the whole batch
+		try (BsonReader reader = new BsonBinaryReader(batch.getByteBuffer().asNIO())) {
+			reader.readStartDocument();
+			reader.readName(BATCH_FIELD);
+			reader.readStartArray();
+			while (reader.readBsonType() != BsonType.END_OF_DOCUMENT) {
+				res = mapper.apply(reader);
+			}
+			reader.readEndArray();
+			reader.readEndDocument();
+		}
+		return res;
+	}
+}
@@ -0,0 +1,82 @@
+package telran.students;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.mongo.MongoClientSettingsBuilderCustomizer;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+import com.mongodb.ReadPreference;
+import com.mongodb.client.MongoClient;
+import com.mongodb.event.ConnectionPoolCreatedEvent;
+import com.mongodb.event.ConnectionPoolListener;
+
+import telran.students.config.MongoTemplatesConfig;
+
+@SpringBootTest(properties = {"app.mongodb.analytics.max-staleness-seconds=120",
+		"app.mongodb.analytics.max-pool-size=3"})
+class MongoTemplatesConfigTests {
+	/** max sizes of the connection pools created by both clients */
+	static final List<Integer> poolMaxSizes = new CopyOnWriteArrayList<>();
+
+	@TestConfiguration
+	static class PoolListenerConfig {
+		@Bean
+		MongoClientSettingsBuilderCustomizer poolListenerCustomizer() {
+			ConnectionPoolListener listener = new ConnectionPoolListener() {
+				@Override
+				public void connectionPoolCreated(ConnectionPoolCreatedEvent event) {
+					poolMaxSizes.add(event.getSettings().getMaxSize());
+				}
+			};
+			return builder -> builder.applyToConnectionPoolSettings(pool -> pool.addConnectionPoolListener(listener));
+		}
+	}
+
+	@Autowired
+	MongoClient mongoClient;
+	@Autowired
+	@Qualifier(MongoTemplatesConfig.ANALYTICS_MONGO_CLIENT)
+	MongoClient analyticsMongoClient;
+	@Autowired
+	MongoTemplate mongoTemplate;
+	@Autowired
+	@Qualifier(MongoTemplatesConfig.ANALYTICS_MONGO_TEMPLATE)
+	MongoTemplate analyticsMongoTemplate;
+
+	@Test
+	void primaryTemplateReadsPrimaryTest() {
+		assertNotSame(analyticsMongoClient, mongoClient);
+		assertNotSame(analyticsMongoTemplate, mongoTemplate);
+		String database = mongoTemplate.getDb().getName();
+		assertEquals(ReadPreference.primary(), mongoClient.getDatabase(database).getReadPreference());
+		assertEquals(ReadPreference.primary(), mongoTemplate.getDb().getReadPreference());
+	}
+
+	@Test
+	void analyticsTemplateReadsSecondaryTest() {
+		ReadPreference expected = ReadPreference.secondaryPreferred(120, TimeUnit.SECONDS);
+		String database = mongoTemplate.getDb().getName();
+		assertEquals(expected, analyticsMongoClient.getDatabase(database).getReadPreference());
+		assertEquals(expected, analyticsMongoTemplate.getDb().getReadPreference());
+		assertEquals(database, analyticsMongoTemplate.getDb().getName());
+	}
+
+	@Test
+	void analyticsConnectionPoolTest() {
+		mongoTemplate.getDb().listCollectionNames().first();
+		analyticsMongoTemplate.getDb().listCollectionNames().first();
+		// the analytics pool has its own limit, the primary one keeps the driver default
+		assertTrue(poolMaxSizes.contains(3), poolMaxSizes::toString);
+		assertTrue(poolMaxSizes.contains(100), poolMaxSizes::toString);
+	}
+}
@@ -0,0 +1,55 @@
+package telran.students;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.LocalDate;
+
+import org.bson.BsonDocument;
+import org.bson.BsonDocumentReader;
+import org.bson.BsonDocumentWriter;
+import org.bson.codecs.Codec;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.EncoderContext;
+import org.junit.jupiter.api.Test;
+
+import telran.students.codecs.*;
+import telran.students.dto.*;
+
+/** the records written by the codecs are read back by them the same */
+class RecordCodecsTests {
+	private static final LocalDate DATE = LocalDate.parse("2024-01-15");
+
+	private <T> BsonDocument encode(Codec<T> codec, T value) {
+		BsonDocument document = new BsonDocument();
+		codec.encode(new BsonDocumentWriter(document), value, EncoderContext.builder().build());
+		return document;
+	}
+
+	private <T> T roundTrip(Codec<T> codec, T value) {
+		return codec.decode(new BsonDocumentReader(encode(codec, value)), DecoderContext.builder().build());
+	}
+
+	@Test
+	void markTest() {
+		Mark mark = new Mark("Java", 80, DATE);
+		assertEquals(mark, roundTrip(new MarkCodec(), mark));
+		Mark noDate = new Mark("Java", 80, null);
+		assertFalse(encode(new MarkCodec(), noDate).containsKey("date"));
+		assertEquals(noDate, roundTrip(new MarkCodec(), noDate));
+	}
+
+	@Test
+	void studentAvgScoreTest() {
+		StudentAvgScore avgScore = new StudentAvgScore(123L, 75);
+		BsonDocument document = encode(new StudentAvgScoreCodec(), avgScore);
+		assertEquals(123L, document.getInt64("_id").getValue());
+		assertTrue(document.get("avgScore").isDouble());
+		assertEquals(avgScore, roundTrip(new StudentAvgScoreCodec(), avgScore));
+	}
+
+	@Test
+	void markTrendTest() {
+		MarkTrend markTrend = new MarkTrend(123L, "Java", DATE, 80, 72.5, 7.5);
+		assertEquals(markTrend, roundTrip(new MarkTrendCodec(), markTrend));
+	}
+}
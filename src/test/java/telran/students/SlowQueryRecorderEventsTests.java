@@ -0,0 +1,171 @@
+package telran.students;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+import org.bson.*;
+import org.bson.conversions.Bson;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.data.mongodb.MongoDatabaseFactory;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+import com.mongodb.ReadPreference;
+import com.mongodb.ServerAddress;
+import com.mongodb.client.MongoDatabase;
+import com.mongodb.connection.*;
+import com.mongodb.event.*;
+
+import telran.students.dto.SlowQuery;
+import telran.students.monitoring.SlowQueryRecorder;
+
+/**
+ * SlowQueryRecorder fed by the driver events without a Mongo server;
+ * explain fails without MongoTemplate so the entries are recorded without plans
+ */
+class SlowQueryRecorderEventsTests {
+	private static final String DATABASE = "students-db";
+	private static final String COLLECTION = "students";
+	private static final String PHONE = "051-1234567";
+	private static final ConnectionDescription CONNECTION =
+			new ConnectionDescription(new ServerId(new ClusterId(), new ServerAddress()));
+	private int requestId;
+
+	private SlowQueryRecorder recorder(long thresholdMillis, int maxPerMinute, int capacity,
+			Map<String, Object> beans) {
+		DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+		beans.forEach(beanFactory::registerSingleton);
+		return new SlowQueryRecorder(thresholdMillis, 1.0, maxPerMinute, capacity,
+				beanFactory.getBeanProvider(MongoTemplate.class));
+	}
+
+	private SlowQueryRecorder recorder(long thresholdMillis, int maxPerMinute, int capacity) {
+		return recorder(thresholdMillis, maxPerMinute, capacity, Map.of());
+	}
+
+	private void command(SlowQueryRecorder recorder, BsonDocument command, long durationMillis) {
+		int id = ++requestId;
+		String commandName = command.getFirstKey();
+		recorder.commandStarted(new CommandStartedEvent(null, 1, id, CONNECTION, DATABASE,
+				commandName, command));
+		recorder.commandSucceeded(new CommandSucceededEvent(null, 1, id, CONNECTION, DATABASE,
+				commandName, new BsonDocument("ok", new BsonInt32(1)),
+				TimeUnit.MILLISECONDS.toNanos(durationMillis)));
+	}
+
+	private BsonDocument find(long id) {
+		return new BsonDocument("find", new BsonString(COLLECTION))
+				.append("filter", new BsonDocument("id", new BsonInt64(id)));
+	}
+
+	private List<Long> ids(List<SlowQuery> slowQueries) {
+		return slowQueries.stream().map(q -> q.command().get("filter", Document.class))
+				.filter(Objects::nonNull).map(filter -> filter.getLong("id")).toList();
+	}
+
+	private List<SlowQuery> awaitRecorded(SlowQueryRecorder recorder, long id) throws InterruptedException {
+		// explain is run asynchronously by one thread in the order of the commands
+		for (int i = 0; i < 50; i++) {
+			List<SlowQuery> slowQueries = recorder.getSlowQueries();
+			if (ids(slowQueries).contains(id)) {
+				return slowQueries;
+			}
+			Thread.sleep(100);
+		}
+		return fail("command with id " + id + " has not been recorded");
+	}
+
+	@Test
+	void thresholdTest() throws InterruptedException {
+		SlowQueryRecorder recorder = recorder(100, 10, 10);
+		command(recorder, find(1), 99);
+		command(recorder, find(2), 100);
+		List<SlowQuery> slowQueries = awaitRecorded(recorder, 2);
+		assertIterableEquals(List.of(2L), ids(slowQueries));
+		SlowQuery slowQuery = slowQueries.get(0);
+		assertEquals(DATABASE, slowQuery.database());
+		assertEquals("find", slowQuery.commandName());
+		assertEquals(100, slowQuery.durationMillis());
+		assertNull(slowQuery.explain());
+	}
+
+	@Test
+	void maxPerMinuteTest() throws InterruptedException {
+		SlowQueryRecorder recorder = recorder(0, 2, 10);
+		command(recorder, find(1), 1);
+		command(recorder, find(2), 1);
+		command(recorder, find(3), 1);
+		// the third command is rejected before explain is scheduled
+		assertIterableEquals(List.of(2L, 1L), ids(awaitRecorded(recorder, 2)));
+	}
+
+	@Test
+	void capacityTest() throws InterruptedException {
+		SlowQueryRecorder recorder = recorder(0, 10, 3);
+		for (long id = 1; id <= 5; id++) {
+			command(recorder, find(id), 1);
+		}
+		assertIterableEquals(List.of(5L, 4L, 3L), ids(awaitRecorded(recorder, 5)));
+	}
+
+	@Test
+	void phoneRedactedTest() throws InterruptedException {
+		SlowQueryRecorder recorder = recorder(0, 10, 10);
+		BsonDocument find = find(1);
+		find.getDocument("filter").append("$or", new BsonArray(List.of(
+				new BsonDocument("phone", new BsonString(PHONE)),
+				new BsonDocument("contacts", new BsonDocument("phone", new BsonString(PHONE))))));
+		command(recorder, find, 1);
+		BsonDocument update = new BsonDocument("update", new BsonString(COLLECTION))
+				.append("updates", new BsonArray(List.of(new BsonDocument("q",
+						new BsonDocument("phone", new BsonString(PHONE)))
+						.append("u", new BsonDocument("$set",
+								new BsonDocument("phone", new BsonString(PHONE)))))));
+		command(recorder, update, 1);
+		command(recorder, find(2), 1);
+		List<SlowQuery> slowQueries = awaitRecorded(recorder, 2);
+		assertEquals(3, slowQueries.size());
+		for (SlowQuery slowQuery : slowQueries) {
+			String json = slowQuery.command().toJson();
+			assertFalse(json.contains(PHONE), json);
+		}
+		assertEquals(2, countRedacted(slowQueries.get(2).command().toJson()));
+		assertEquals(2, countRedacted(slowQueries.get(1).command().toJson()));
+	}
+
+	private int countRedacted(String json) {
+		return json.split("\"\\*\\*\\*\"", -1).length - 1;
+	}
+
+	@Test
+	void explainReadPreferenceTest() throws InterruptedException {
+		MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+		MongoDatabaseFactory factory = mock(MongoDatabaseFactory.class);
+		MongoDatabase database = mock(MongoDatabase.class);
+		when(mongoTemplate.getMongoDatabaseFactory()).thenReturn(factory);
+		when(factory.getMongoDatabase(DATABASE)).thenReturn(database);
+		when(database.runCommand(any(Bson.class), any(ReadPreference.class), eq(BsonDocument.class)))
+				.thenReturn(new BsonDocument("executionStats", new BsonDocument()));
+		SlowQueryRecorder recorder = recorder(0, 10, 10, Map.of("mongoTemplate", mongoTemplate));
+		BsonDocument secondaryFind = find(1).append("$readPreference",
+				new BsonDocument("mode", new BsonString("secondaryPreferred"))
+				.append("maxStalenessSeconds", new BsonInt32(90)));
+		command(recorder, secondaryFind, 1);
+		command(recorder, find(2), 1);
+		List<SlowQuery> slowQueries = awaitRecorded(recorder, 2);
+		assertTrue(slowQueries.stream().allMatch(q -> q.explain().containsKey("executionStats")));
+		assertFalse(slowQueries.get(1).command().containsKey("$readPreference"));
+		var inOrder = inOrder(database);
+		inOrder.verify(database).runCommand(any(Bson.class),
+				eq(ReadPreference.secondaryPreferred(90, TimeUnit.SECONDS)), eq(BsonDocument.class));
+		inOrder.verify(database).runCommand(any(Bson.class), eq(ReadPreference.primary()),
+				eq(BsonDocument.class));
+		verify(database, never()).runCommand(any(Bson.class), eq(BsonDocument.class));
+	}
+}
@@ -0,0 +1,67 @@
+package telran.students;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static telran.students.TestDb.*;
+
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import telran.students.dto.SlowQuery;
+import telran.students.monitoring.SlowQueryRecorder;
+import telran.students.service.StudentsService;
+
+@SpringBootTest(properties = {"app.mongodb.slow-query.threshold-ms=0",
+		"app.mongodb.slow-query.sample-rate=1.0",
+		"app.mongodb.slow-query.max-per-minute=1000"})
+class SlowQueryRecorderTests {
+	@Autowired
+	StudentsService studentsService;
+	@Autowired
+	SlowQueryRecorder slowQueryRecorder;
+	@Autowired
+	TestDb testDb;
+	@BeforeEach
+	void setUp() {
+		testDb.createDb();
+		slowQueryRecorder.clear();
+	}
+
+	@Test
+	void slowFindRecordedTest() throws InterruptedException {
+		assertEquals(students[0], studentsService.getStudentByPhoneNumber(PHONE1));
+		SlowQuery slowQuery = awaitSlowQuery("find");
+		assertEquals("students", slowQuery.command().getString("find"));
+		String command = slowQuery.command().toJson();
+		String explain = slowQuery.explain().toJson();
+		assertFalse(command.contains(PHONE1));
+		assertFalse(explain.contains(PHONE1));
+		assertTrue(slowQuery.explain().containsKey("executionStats"));
+	}
+
+	@Test
+	void slowAggregateRecordedTest() throws InterruptedException {
+		studentsService.getBestStudents(2);
+		SlowQuery slowQuery = awaitSlowQuery("aggregate");
+		assertEquals("students", slowQuery.command().getString("aggregate"));
+		// for pipelines execution stats are inside of the $cursor stage
+		assertTrue(slowQuery.explain().toJson().contains("executionStats"));
+	}
+
+	private SlowQuery awaitSlowQuery(String commandName) throws InterruptedException {
+		// explain is run asynchronously
+		for (int i = 0; i < 50; i++) {
+			List<SlowQuery> slowQueries = slowQueryRecorder.getSlowQueries();
+			for (SlowQuery slowQuery : slowQueries) {
+				if (slowQuery.commandName().equals(commandName) && slowQuery.explain() != null) {
+					return slowQuery;
+				}
+			}
+			Thread.sleep(100);
+		}
+		return fail(commandName + " command has not been recorded");
+	}
+}
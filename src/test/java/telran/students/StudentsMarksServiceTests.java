@@ -4,6 +4,8 @@ import static org.junit.jupiter.api.Assertions.*;
 
 import java.time.LocalDate;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.LongStream;
 
 import org.junit.jupiter.api.BeforeEach;
 import static telran.students.TestDb.*;
@@ -13,6 +15,7 @@ import org.springframework.boot.test.context.SpringBootTest;
 
 import telran.students.dto.*;
 import telran.students.exceptions.*;
+import telran.students.model.StudentDoc;
 import telran.students.repo.StudentRepo;
 import telran.students.service.StudentsService;
 
@@ -158,5 +161,80 @@ class StudentsMarksServiceTests {
 		List<Long> expected = List.of(ID7, ID5);
 		assertIterableEquals(expected, studentsService.getWorstStudents(2));
 	}
+	@Test
+	void getStudentMarksTrendTest() {
+		List<MarkTrend> expected = List.of(new MarkTrend(ID1, SUBJECT1, DATE1, 70, 70, 0),
+				new MarkTrend(ID1, SUBJECT1, DATE2, 80, 75, 5),
+				new MarkTrend(ID1, SUBJECT2, DATE3, 80, 80, 0));
+		assertIterableEquals(expected, studentsService.getStudentMarksTrend(ID1, 30));
+		assertEquals(new MarkTrend(ID1, SUBJECT1, DATE2, 80, 80, 10),
+				studentsService.getStudentMarksTrend(ID1, 5).get(1));
+		//window of 10 days ending on DATE2 starts on DATE1, the one of 9 days doesn't
+		assertEquals(75, studentsService.getStudentMarksTrend(ID1, 10).get(1).avgScore());
+		assertEquals(80, studentsService.getStudentMarksTrend(ID1, 9).get(1).avgScore());
+		assertThrowsExactly(IllegalArgumentException.class,
+				() -> studentsService.getStudentMarksTrend(ID1, 0));
+		assertTrue(studentsService.getStudentMarksTrend(ID7, 30).isEmpty());
+		assertThrowsExactly(StudentNotFoundException.class,
+				() -> studentsService.getStudentMarksTrend(ID_NOT_EXIST, 30));
+	}
+	@Test
+	void getStudentsMarksTrendTest() {
+		List<MarkTrend> expected = List.of(new MarkTrend(ID1, SUBJECT1, DATE1, 70, 70, 0),
+				new MarkTrend(ID1, SUBJECT1, DATE2, 80, 75, 5),
+				new MarkTrend(ID1, SUBJECT2, DATE3, 80, 80, 0),
+				new MarkTrend(ID5, SUBJECT4, DATE3, 95, 95, 0));
+		assertIterableEquals(expected,
+				studentsService.getStudentsMarksTrend(List.of(ID5, ID1, ID_NOT_EXIST), 30));
+		assertTrue(studentsService.getStudentsMarksTrend(List.of(ID_NOT_EXIST), 30).isEmpty());
+		assertThrowsExactly(IllegalArgumentException.class,
+				() -> studentsService.getStudentsMarksTrend(List.of(ID1), -1));
+	}
+	@Test
+	void getStudentsBatchTest() {
+		BatchResult<Student> res = studentsService.getStudents(List.of(ID2, ID_NOT_EXIST, ID1, ID2));
+		assertEquals(Map.of(ID1, students[0], ID2, students[1]), res.found());
+		assertIterableEquals(List.of(ID2, ID1), res.found().keySet());
+		assertIterableEquals(List.of(ID_NOT_EXIST), res.notFound());
+	}
+	@Test
+	void getMarksBatchTest() {
+		BatchResult<List<Mark>> res = studentsService.getMarks(List.of(ID1, ID7, ID_NOT_EXIST));
+		assertEquals(Map.of(ID1, List.of(marks[0]), ID7, List.of()), res.found());
+		assertIterableEquals(List.of(ID_NOT_EXIST), res.notFound());
+	}
+	@Test
+	void getStudentMarksAtDatesBatchTest() {
+		BatchResult<List<Mark>> res = studentsService.getStudentMarksAtDates(List.of(ID4, ID1, ID_NOT_EXIST),
+				DATE3, DATE4);
+		assertEquals(Map.of(ID4, List.of(new Mark(SUBJECT1, 70, DATE3), new Mark(SUBJECT4, 70, DATE4)),
+				ID1, List.of(new Mark(SUBJECT2, 80, DATE3))), res.found());
+		assertIterableEquals(List.of(ID_NOT_EXIST), res.notFound());
+		assertTrue(studentsService.getStudentMarksAtDates(List.of(ID4), DATE1, DATE2).found().get(ID4).isEmpty());
+	}
+	@Test
+	void batchMoreThanChunkTest() {
+		//2500 ids in descending order (3 chunks of at most 1000 ids),
+		//ids divisible by 3 don't exist on both sides of the chunk boundaries
+		List<Long> ids = LongStream.iterate(12499, id -> id >= 10000, id -> id - 1).boxed().toList();
+		List<Long> existingIds = ids.stream().filter(id -> id % 3 != 0).toList();
+		List<Long> notExistingIds = ids.stream().filter(id -> id % 3 == 0).toList();
+		studentRepo.saveAll(existingIds.stream().map(id -> {
+			StudentDoc studentDoc = new StudentDoc(new Student(id, PHONE1 + id));
+			studentDoc.getMarks().add(new Mark(SUBJECT1, 90, DATE1));
+			return studentDoc;
+		}).toList());
+		BatchResult<Student> students = studentsService.getStudents(ids);
+		assertIterableEquals(existingIds, students.found().keySet());
+		assertIterableEquals(notExistingIds, students.notFound());
+		assertEquals(new Student(11000, PHONE1 + 11000), students.found().get(11000L));
+		BatchResult<List<Mark>> marks = studentsService.getMarks(ids);
+		assertIterableEquals(existingIds, marks.found().keySet());
+		assertIterableEquals(notExistingIds, marks.notFound());
+		assertEquals(List.of(new Mark(SUBJECT1, 90, DATE1)), marks.found().get(11000L));
+		BatchResult<List<Mark>> marksAtDates = studentsService.getStudentMarksAtDates(ids, DATE2, DATE3);
+		assertIterableEquals(existingIds, marksAtDates.found().keySet());
+		assertIterableEquals(notExistingIds, marksAtDates.notFound());
+	}
 
 }
@@ -0,0 +1,58 @@
+#!/bin/sh
+# Startup time harness: time to first request of the regular fat jar
+# against the fast-start build (Spring AOT + CDS archive, see profile fast-start in pom.xml)
+# usage: ./startup-time.sh [runs] [port], maven command may be set by MVN (default the wrapper)
+# the application needs no running MongoDB for the probe request (GET /admin/admission)
+RUNS=${1:-5}
+PORT=${2:-8080}
+MVN=${MVN:-sh ./mvnw}
+DIR=$(cd "$(dirname "$0")" && pwd)
+TARGET=$DIR/target
+BASELINE=$TARGET/startup-time/students-marks-baseline.jar
+
+now_ms() {
+	date +%s%3N
+}
+
+# starts the application with the given java arguments and prints milliseconds
+# elapsed until the first successful request
+measure() {
+	start=$(now_ms)
+	java "$@" --server.port=$PORT > /dev/null 2>&1 &
+	pid=$!
+	until curl -sf "http://localhost:$PORT/admin/admission" > /dev/null; do
+		if ! kill -0 $pid 2> /dev/null; then
+			echo "application exited before serving a request" >&2
+			exit 1
+		fi
+		sleep 0.02
+	done
+	echo $(( $(now_ms) - start ))
+	kill $pid
+	wait $pid 2> /dev/null || true
+}
+
+report() {
+	name=$1
+	shift
+	total=0
+	times=""
+	i=0
+	while [ $i -lt "$RUNS" ]; do
+		t=$(measure "$@") || exit 1
+		times="$times $t"
+		total=$(( total + t ))
+		i=$(( i + 1 ))
+	done
+	echo "$name: average $(( total / RUNS )) ms, runs (ms):$times"
+}
+
+cd "$DIR" || exit 1
+$MVN -B -q -DskipTests clean package || exit 1
+mkdir -p "$TARGET/startup-time"
+cp "$TARGET/students-marks-0.0.1.jar" "$BASELINE"
+$MVN -B -q -DskipTests -Pfast-start package || exit 1
+
+report "baseline  " -jar "$BASELINE"
+report "fast-start" -XX:SharedArchiveFile="$TARGET/application.jsa" -Dspring.aot.enabled=true \
+	-jar "$TARGET/students-marks-0.0.1.jar"